@@ -0,0 +1,188 @@
+import java.util.Arrays;
+
+/**
+ * Simulates how a hierarchy of set-associative caches would handle the reads and writes
+ * a sort makes to its data, assuming the data is a contiguous array of ints starting
+ * at the beginning of a cache line.
+ *
+ * Each level is checked in turn until one holds the line; the line is then loaded into
+ * every level that missed, evicting the least recently used line in its set. Writes are
+ * treated the same as reads (write-allocate), as we only care about which lines are needed.
+ *
+ * Only the thread doing the sort (or replaying its operations) uses it; the parallel sorts
+ * do each phase on that thread while simulating the cache. The GUI only draws the misses,
+ * which may be a little out of date, but are only for a heatmap.
+ */
+public class CacheSimulator {
+	// The size, in bytes, of each element of data
+	private static final int ELEMENT_SIZE = 4;
+
+	// The names of each level, from closest to the CPU to furthest away
+	public static final String[] LEVEL_NAMES = { "L1", "L2", "LLC" };
+
+	// Default sizes, in bytes. These are far smaller than real caches, so that the
+	// amounts of data the GUI can show (at most a few kilobytes) don't all fit in L1.
+	public static final int DEFAULT_L1_SIZE = 256;
+	public static final int DEFAULT_L2_SIZE = 1024;
+	public static final int DEFAULT_LLC_SIZE = 2048;
+	public static final int DEFAULT_LINE_SIZE = 16;
+	public static final int DEFAULT_WAYS = 2;
+
+	private final int lineSize;
+	private final Level[] levels;
+
+	private long reads = 0;
+	private long writes = 0;
+
+	// How many times each element missed in L1, for drawing a heatmap
+	private final int[] misses;
+
+	/**
+	 * @param amount The amount of elements in the data.
+	 * @param lineSize The size, in bytes, of each cache line.
+	 * @param ways How many lines each set of every level holds.
+	 * @param levelSizes The size, in bytes, of each level; one for each of LEVEL_NAMES.
+	 * @throws IllegalArgumentException If any level can't hold even one line.
+	 */
+	public CacheSimulator(int amount, int lineSize, int ways, int... levelSizes){
+		if(lineSize <= 0 || ways <= 0)
+			throw new IllegalArgumentException("Line size and ways must be positive");
+		if(levelSizes.length != LEVEL_NAMES.length)
+			throw new IllegalArgumentException("Expected " + LEVEL_NAMES.length + " level sizes, got " + levelSizes.length);
+
+		this.lineSize = lineSize;
+		this.misses = new int[amount];
+
+		levels = new Level[levelSizes.length];
+		for(int i = 0; i < levels.length; i++){
+			if(levelSizes[i] < lineSize)
+				throw new IllegalArgumentException(LEVEL_NAMES[i] + " (" + levelSizes[i]
+						+ " bytes) must hold at least one line (" + lineSize + " bytes)");
+			levels[i] = new Level(levelSizes[i], lineSize, ways);
+		}
+	}
+
+	/**
+	 * Records a read of the element at the given index.
+	 */
+	public void read(int index){
+		reads++;
+		access(index);
+	}
+
+	/**
+	 * Records a write to the element at the given index.
+	 */
+	public void write(int index){
+		writes++;
+		access(index);
+	}
+
+	/**
+	 * Looks up the line holding the given element in each level,
+	 * until one of them holds it.
+	 */
+	private void access(int index){
+		long line = (long)index * ELEMENT_SIZE / lineSize;
+		for(int i = 0; i < levels.length; i++){
+			if(levels[i].access(line)) return;
+			if(i == 0) misses[index]++;
+		}
+	}
+
+	/**
+	 * Returns the fraction of accesses to the given level which hit, or 0 if there were none.
+	 */
+	public double getHitRate(int level){
+		long accesses = levels[level].hits + levels[level].misses;
+		return accesses == 0 ? 0 : (double)levels[level].hits / accesses;
+	}
+
+	/**
+	 * Returns how many times the given level missed, per element of data.
+	 */
+	public double getMissesPerElement(int level){
+		return misses.length == 0 ? 0 : (double)levels[level].misses / misses.length;
+	}
+
+	/**
+	 * Returns how many times each element missed in L1. This is the array itself,
+	 * so it keeps updating as the sort goes on.
+	 */
+	public int[] getMisses(){
+		return misses;
+	}
+
+	public long getReads(){
+		return reads;
+	}
+	public long getWrites(){
+		return writes;
+	}
+
+	/**
+	 * Returns the hit rate and misses per element of each level, one level per line.
+	 */
+	@Override
+	public String toString(){
+		StringBuilder builder = new StringBuilder();
+		builder.append(String.format("Reads: %d, Writes: %d", reads, writes));
+		for(int i = 0; i < levels.length; i++)
+			builder.append(String.format("\n%s: %.1f%% hits, %.2f misses/element",
+					LEVEL_NAMES[i], getHitRate(i)*100, getMissesPerElement(i)));
+		return builder.toString();
+	}
+
+	/**
+	 * One level of cache, split into sets of lines, each of which
+	 * evicts its least recently used line when it's full.
+	 */
+	private static class Level {
+		private final int sets;
+		private final int ways;
+
+		// The line held in each way of each set, or -1 if it's empty
+		private final long[][] lines;
+		// When each way of each set was last used, for finding the least recently used
+		private final long[][] lastUsed;
+		private long time = 0;
+
+		private long hits = 0;
+		private long misses = 0;
+
+		public Level(int size, int lineSize, int ways){
+			// A level too small for even one full set just gets one set with as many lines as fit
+			this.ways = Math.min(ways, size / lineSize);
+			this.sets = size / (lineSize * this.ways);
+
+			lines = new long[sets][this.ways];
+			lastUsed = new long[sets][this.ways];
+			for(long[] set : lines)
+				Arrays.fill(set, -1);
+		}
+
+		/**
+		 * Looks up a line, loading it if it isn't held.
+		 * @return Whether the line was already held.
+		 */
+		public boolean access(long line){
+			time++;
+			int set = (int)(line % sets);
+
+			int leastRecent = 0;
+			for(int way = 0; way < ways; way++){
+				if(lines[set][way] == line){
+					lastUsed[set][way] = time;
+					hits++;
+					return true;
+				}
+				if(lastUsed[set][way] < lastUsed[set][leastRecent]) leastRecent = way;
+			}
+
+			lines[set][leastRecent] = line;
+			lastUsed[set][leastRecent] = time;
+			misses++;
+			return false;
+		}
+	}
+}
@@ -3,17 +3,21 @@ import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
+import java.awt.GridLayout;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.util.HashSet;
 import java.util.Set;
 
 import javax.swing.JButton;
+import javax.swing.JCheckBox;
+import javax.swing.JComboBox;
 import javax.swing.JFrame;
 import javax.swing.JLabel;
 import javax.swing.JPanel;
 import javax.swing.JSpinner;
 import javax.swing.SpinnerNumberModel;
+import javax.swing.SwingUtilities;
 
 public class GUI {
 	// Initial position/size parameters of the frame
@@ -25,13 +29,22 @@ public class GUI {
 	// Initial size parameters of the panels
 	// Note that panel height is based on the frame height
 	private static final int MENU_INIT_WIDTH = 200;
+	// The menu has more in it than fits in the sort panel's height
+	private static final int MENU_INIT_HEIGHT = 840;
 	private static final int SORT_INIT_WIDTH = 500;
 
 	// The width between the menu section and the sorting section
 	private static final int MIDDLE_GAP = 40;
 
+	// Size of the frame showing the results of profiling
+	private static final int PROFILE_WIDTH = 800;
+	private static final int PROFILE_HEIGHT = 500;
+
 	// The color to draw the data which is currently being considered.
 	private static final Color CONSIDERING_COLOR = Color.YELLOW;
+	// The color to draw the data which has missed in the cache the most;
+	// data which has missed less is drawn between this and black.
+	private static final Color HOTTEST_COLOR = Color.RED;
 
 	private String sortMethod;
 
@@ -43,23 +56,36 @@ public class GUI {
 	private JSpinner amount;
 	// The delay between comparison operations
 	private JSpinner delay;
+	// How the data to sort is arranged
+	private JComboBox<String> distribution;
+	// The seed to create the data with; the same seed always gives the same data
+	private JSpinner seed;
 
 	private JLabel comparisons;
 	private int numComparisons = 0;
 
+	// Whether to simulate the cache, and the sizes of the cache to simulate
+	private JCheckBox simulateCache;
+	private JSpinner l1Size;
+	private JSpinner l2Size;
+	private JSpinner llcSize;
+	private JSpinner lineSize;
+	private JSpinner ways;
+	private JLabel cacheStats;
+
 	private Set<JButton> sortButton;
 	private ActionListener buttonListener;
 
 	public GUI(Sorter sorter){
 		frame = new JFrame();
-		frame.setSize(new Dimension(MENU_INIT_WIDTH + MIDDLE_GAP + SORT_INIT_WIDTH, INIT_HEIGHT));
+		frame.setSize(new Dimension(MENU_INIT_WIDTH + MIDDLE_GAP + SORT_INIT_WIDTH, MENU_INIT_HEIGHT));
 		frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
 		frame.setLayout(new BorderLayout());
 		frame.setTitle("Sorting Demo");
 
 		// We don't really need another class for the menu panel, because it just has a bunch of buttons and a field.
 		menuPanel = new JPanel();
-		menuPanel.setPreferredSize(new Dimension(MENU_INIT_WIDTH, INIT_HEIGHT));
+		menuPanel.setPreferredSize(new Dimension(MENU_INIT_WIDTH, MENU_INIT_HEIGHT));
 
 
 		JLabel amountLabel = new JLabel("Amount of Data:");
@@ -78,6 +104,20 @@ public class GUI {
 
 		menuPanel.add(delay);
 
+		JLabel distributionLabel = new JLabel("Distribution of Data:");
+		menuPanel.add(distributionLabel);
+
+		distribution = new JComboBox<String>(Sorter.DISTRIBUTIONS);
+		distribution.setPreferredSize(new Dimension(MENU_INIT_WIDTH, 30));
+		menuPanel.add(distribution);
+
+		JLabel seedLabel = new JLabel("Seed:");
+		menuPanel.add(seedLabel);
+
+		seed = new JSpinner(new SpinnerNumberModel(0, 0, Integer.MAX_VALUE, 1));
+		seed.setPreferredSize(new Dimension(MENU_INIT_WIDTH, 30));
+		menuPanel.add(seed);
+
 		comparisons = new JLabel("Comparisons: 0");
 		menuPanel.add(comparisons);
 
@@ -98,11 +138,36 @@ public class GUI {
 			}
 		};
 
-		addSortButton("Selection Sort");
-		addSortButton("Insertion Sort");
-		addSortButton("Bubble Sort");
-		addSortButton("Merge Sort");
-		addSortButton("Quick Sort");
+		for(String sortMethod : Sorter.SORT_METHODS)
+			addSortButton(sortMethod);
+
+		// Profiling sorts with every method, so it isn't one of the sort buttons
+		JButton profileButton = new JButton("Profile All");
+		profileButton.setPreferredSize(new Dimension(MENU_INIT_WIDTH, 30));
+		profileButton.addActionListener(new ActionListener(){
+			public void actionPerformed(ActionEvent e){
+				if(!sorter.isSorting())
+					sorter.beginProfile();
+			}
+		});
+		menuPanel.add(profileButton);
+
+		// The cache settings are all small numbers, so they go next to their labels to save space
+		simulateCache = new JCheckBox("Simulate Cache");
+		simulateCache.setPreferredSize(new Dimension(MENU_INIT_WIDTH, 25));
+		menuPanel.add(simulateCache);
+
+		JPanel cachePanel = new JPanel(new GridLayout(0, 2));
+		l1Size = addCacheSpinner(cachePanel, "L1 (bytes):", CacheSimulator.DEFAULT_L1_SIZE);
+		l2Size = addCacheSpinner(cachePanel, "L2 (bytes):", CacheSimulator.DEFAULT_L2_SIZE);
+		llcSize = addCacheSpinner(cachePanel, "LLC (bytes):", CacheSimulator.DEFAULT_LLC_SIZE);
+		lineSize = addCacheSpinner(cachePanel, "Line (bytes):", CacheSimulator.DEFAULT_LINE_SIZE);
+		ways = addCacheSpinner(cachePanel, "Ways:", CacheSimulator.DEFAULT_WAYS);
+		cachePanel.setPreferredSize(new Dimension(MENU_INIT_WIDTH, 110));
+		menuPanel.add(cachePanel);
+
+		cacheStats = new JLabel();
+		menuPanel.add(cacheStats);
 
 		frame.add(menuPanel, BorderLayout.WEST);
 
@@ -124,6 +189,25 @@ public class GUI {
 		menuPanel.repaint();
 	}
 
+	/**
+	 * Increments the amount of comparisons by the given amount
+	 */
+	public void incrementComparisons(int amount){
+		numComparisons += amount;
+		comparisons.setText("Comparisons: " + numComparisons);
+		menuPanel.repaint();
+	}
+
+	/**
+	 * Sets the amount of comparisons to that of a sort which was done before,
+	 * and shows that it wasn't done again.
+	 */
+	public void showCachedComparisons(long amount){
+		numComparisons = (int)amount;
+		comparisons.setText("Comparisons: " + numComparisons + " (cached)");
+		menuPanel.repaint();
+	}
+
 	/**
 	 * Resets the amount of comparisons to 0
 	 */
@@ -169,6 +253,80 @@ public class GUI {
 	public int getDelay(){
 		return (int)delay.getValue();
 	}
+	public String getDistribution(){
+		return (String)distribution.getSelectedItem();
+	}
+	public long getSeed(){
+		return (int)seed.getValue();
+	}
+
+	/**
+	 * Creates a cache with the sizes chosen on the GUI, for the given amount of data.
+	 * @return The cache, or null if the cache isn't being simulated,
+	 * or the sizes chosen can't make one (in which case the reason is shown instead).
+	 */
+	public CacheSimulator createCacheSimulator(int amount){
+		sortPanel.updateHeat(null);
+		cacheStats.setText("");
+		if(!simulateCache.isSelected()) return null;
+
+		try{
+			return new CacheSimulator(amount, (int)lineSize.getValue(), (int)ways.getValue(),
+					(int)l1Size.getValue(), (int)l2Size.getValue(), (int)llcSize.getValue());
+		}
+		catch(IllegalArgumentException e){
+			cacheStats.setText("<html>" + e.getMessage() + "</html>");
+			return null;
+		}
+	}
+
+	/**
+	 * Shows what the cache has done so far, both as text and as a heatmap on the data.
+	 */
+	public void updateCache(CacheSimulator cache){
+		sortPanel.updateHeat(cache.getMisses());
+		cacheStats.setText("<html>" + cache.toString().replace("\n", "<br>") + "</html>");
+		menuPanel.repaint();
+	}
+
+	/**
+	 * Opens a new frame showing a log-log chart of the given profile,
+	 * with a choice of which distribution and metric to show.
+	 */
+	public void showProfile(Profiler profiler){
+		SwingUtilities.invokeLater(new Runnable(){
+			public void run(){
+				JFrame profileFrame = new JFrame();
+				profileFrame.setSize(new Dimension(PROFILE_WIDTH, PROFILE_HEIGHT));
+				profileFrame.setLayout(new BorderLayout());
+				profileFrame.setTitle("Profile");
+
+				ProfileChart chart = new ProfileChart(profiler.getMeasurements());
+				profileFrame.add(chart, BorderLayout.CENTER);
+
+				JPanel choicePanel = new JPanel();
+				JComboBox<String> distributionChoice = new JComboBox<String>(Sorter.DISTRIBUTIONS);
+				distributionChoice.addActionListener(new ActionListener(){
+					public void actionPerformed(ActionEvent e){
+						chart.setDistribution((String)distributionChoice.getSelectedItem());
+					}
+				});
+				choicePanel.add(distributionChoice);
+
+				JComboBox<String> metricChoice = new JComboBox<String>(Measurement.METRICS);
+				metricChoice.addActionListener(new ActionListener(){
+					public void actionPerformed(ActionEvent e){
+						chart.setMetric((String)metricChoice.getSelectedItem());
+					}
+				});
+				choicePanel.add(metricChoice);
+				profileFrame.add(choicePanel, BorderLayout.NORTH);
+
+				profileFrame.setLocation(INIT_X, INIT_Y);
+				profileFrame.setVisible(true);
+			}
+		});
+	}
 
 	private void addSortButton(String title){
 		JButton newButton = new JButton(title);
@@ -178,6 +336,17 @@ public class GUI {
 		sortButton.add(newButton);
 	}
 
+	/**
+	 * Adds a label and spinner for one of the cache's sizes to the given panel.
+	 * @return The spinner.
+	 */
+	private JSpinner addCacheSpinner(JPanel panel, String title, int initial){
+		panel.add(new JLabel(title));
+		JSpinner spinner = new JSpinner(new SpinnerNumberModel(initial, 1, Integer.MAX_VALUE, 1));
+		panel.add(spinner);
+		return spinner;
+	}
+
 	private class SortPanel extends JPanel {
 		private int[] data;
 
@@ -190,6 +359,9 @@ public class GUI {
 
 		private int[] considering;
 
+		// How many times each piece of data has missed in the cache, or null to not draw a heatmap
+		private int[] heat;
+
 		/**
 		 * Sets the array of data that this SortPanel will draw.
 		 * This also updates the width and height of each bit of data;
@@ -236,6 +408,13 @@ public class GUI {
 			considering = newConsidering;
 		}
 
+		/**
+		 * Updates how many times each piece of data has missed in the cache.
+		 */
+		public void updateHeat(int[] newHeat){
+			heat = newHeat;
+		}
+
 		/**
 		 * Draws the data in order, using up the entire area with the width
 		 * of each one being based on how many there are. The maximum number in the
@@ -252,10 +431,21 @@ public class GUI {
 
 			if(data == null) return;
 
+			// Data which has missed in the cache more is drawn hotter
+			int maxHeat = 0;
+			if(heat != null)
+				for(int i = 0; i < heat.length; i++)
+					maxHeat = Math.max(maxHeat, heat[i]);
+
 			// Scroll through it and draw every piece of data
 			g2d.setColor(Color.BLACK);
 			for(int i = 0; i < data.length; i++){
 				int height = heightPer * data[i];
+				if(maxHeat > 0){
+					float fraction = (float)heat[i] / maxHeat;
+					g2d.setColor(new Color((int)(HOTTEST_COLOR.getRed()*fraction),
+						(int)(HOTTEST_COLOR.getGreen()*fraction), (int)(HOTTEST_COLOR.getBlue()*fraction)));
+				}
 
 				g2d.fillRect( i * widthPer,
 					getHeight() - height,
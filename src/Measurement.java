@@ -0,0 +1,65 @@
+/**
+ * The work that one sort took to finish, as measured by Sorter.measureSort.
+ */
+public class Measurement {
+	// Every metric that a measurement holds, in the order they are reported
+	public static final String[] METRICS = { "comparisons", "writes", "nanos", "allocatedBytes" };
+
+	private final String sortMethod;
+	private final String distribution;
+	private final int amount;
+
+	private final long comparisons;
+	private final long writes;
+	// -1 if the sort wasn't timed
+	private final long nanos;
+	// -1 if the JVM can't measure allocation, or the sort wasn't measured
+	private final long allocatedBytes;
+
+	public Measurement(String sortMethod, String distribution, int amount,
+			long comparisons, long writes, long nanos, long allocatedBytes){
+		this.sortMethod = sortMethod;
+		this.distribution = distribution;
+		this.amount = amount;
+		this.comparisons = comparisons;
+		this.writes = writes;
+		this.nanos = nanos;
+		this.allocatedBytes = allocatedBytes;
+	}
+
+	/**
+	 * Returns the value of the given metric.
+	 * @param metric One of METRICS.
+	 */
+	public long get(String metric){
+		switch(metric){
+			case "comparisons": return comparisons;
+			case "writes": return writes;
+			case "nanos": return nanos;
+			case "allocatedBytes": return allocatedBytes;
+		}
+		throw new IllegalArgumentException("Unknown metric: " + metric);
+	}
+
+	public String getSortMethod(){
+		return sortMethod;
+	}
+	public String getDistribution(){
+		return distribution;
+	}
+	public int getAmount(){
+		return amount;
+	}
+	public long getComparisons(){
+		return comparisons;
+	}
+	public long getWrites(){
+		return writes;
+	}
+	public long getNanos(){
+		return nanos;
+	}
+	public long getAllocatedBytes(){
+		return allocatedBytes;
+	}
+}
@@ -0,0 +1,68 @@
+import java.util.Arrays;
+
+/**
+ * Records every read and write that a sort makes to its data, in order, so that the
+ * accesses can be replayed later (e.g. through a differently sized cache) without sorting again.
+ *
+ * Only the thread doing the sort records to it; the parallel sorts do each phase on that thread,
+ * pair by pair, while recording, so the same sort always records the same accesses in the same order.
+ * Once it's kept in a RunResult nothing else is recorded, so it can then be replayed from any thread.
+ */
+public class OperationStream {
+	private static final int INITIAL_CAPACITY = 1024;
+
+	// Reads are stored as the index, and writes as -(index+1), so that we only need one int per access
+	private int[] operations = new int[INITIAL_CAPACITY];
+	private int size = 0;
+
+	/**
+	 * Records a read of the element at the given index.
+	 */
+	public void read(int index){
+		add(index);
+	}
+
+	/**
+	 * Records a write to the element at the given index.
+	 */
+	public void write(int index){
+		add(-(index+1));
+	}
+
+	private void add(int operation){
+		if(size == operations.length)
+			operations = Arrays.copyOf(operations, operations.length*2);
+		operations[size++] = operation;
+	}
+
+	/**
+	 * Frees the unused space at the end, for once nothing else will be recorded.
+	 */
+	public void trim(){
+		operations = Arrays.copyOf(operations, size);
+	}
+
+	/**
+	 * Passes every recorded access through the given cache, in order.
+	 */
+	public void replay(CacheSimulator cache){
+		for(int i = 0; i < size; i++){
+			if(operations[i] >= 0) cache.read(operations[i]);
+			else cache.write(-operations[i]-1);
+		}
+	}
+
+	/**
+	 * Returns how many accesses have been recorded.
+	 */
+	public int size(){
+		return size;
+	}
+
+	/**
+	 * Returns roughly how many bytes of memory this takes up.
+	 */
+	public long sizeInBytes(){
+		return (long)operations.length * 4;
+	}
+}
@@ -0,0 +1,125 @@
+import java.awt.Color;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.util.List;
+
+import javax.swing.JPanel;
+
+/**
+ * Draws one metric of a profile against the amount of data, on log-log axes,
+ * with a line for each method of sorting. On log-log axes every power of n is
+ * a straight line whose slope is the power, so n^2 sorts are twice as steep as n sorts.
+ */
+public class ProfileChart extends JPanel {
+	// The space around the plot, for the axis labels and legend
+	private static final int MARGIN = 50;
+	private static final int LEGEND_WIDTH = 120;
+
+	// The colour of the line for each method of sorting, in the same order as Sorter.SORT_METHODS
+	private static final Color[] COLORS = { Color.RED, Color.ORANGE, Color.MAGENTA, Color.BLUE,
+		Color.GREEN.darker(), Color.CYAN.darker(), Color.GRAY };
+
+	private List<Measurement> measurements;
+	private String distribution = Sorter.DISTRIBUTIONS[0];
+	private String metric = Measurement.METRICS[0];
+
+	public ProfileChart(List<Measurement> measurements){
+		this.measurements = measurements;
+	}
+
+	/**
+	 * Sets which distribution to draw the measurements of, and repaints.
+	 */
+	public void setDistribution(String distribution){
+		this.distribution = distribution;
+		repaint();
+	}
+
+	/**
+	 * Sets which metric to draw, and repaints.
+	 */
+	public void setMetric(String metric){
+		this.metric = metric;
+		repaint();
+	}
+
+	@Override
+	public void paintComponent(Graphics g){
+		super.paintComponent(g);
+
+		Graphics2D g2d = (Graphics2D)g;
+
+		g2d.setColor(Color.WHITE);
+		g2d.fillRect(0, 0, getWidth(), getHeight());
+
+		// Find the range of both axes, on a log scale; values of 0 or less can't be drawn
+		double minX = Double.MAX_VALUE, maxX = -Double.MAX_VALUE;
+		double minY = Double.MAX_VALUE, maxY = -Double.MAX_VALUE;
+		for(Measurement measurement : measurements){
+			if(!measurement.getDistribution().equals(distribution) || measurement.get(metric) <= 0) continue;
+			minX = Math.min(minX, Math.log10(measurement.getAmount()));
+			maxX = Math.max(maxX, Math.log10(measurement.getAmount()));
+			minY = Math.min(minY, Math.log10(measurement.get(metric)));
+			maxY = Math.max(maxY, Math.log10(measurement.get(metric)));
+		}
+		if(minX >= maxX) return;
+		// Round the y axis out to whole powers of ten, so that we can label them
+		minY = Math.floor(minY);
+		maxY = Math.max(Math.ceil(maxY), minY+1);
+
+		int plotWidth = getWidth() - MARGIN*2 - LEGEND_WIDTH;
+		int plotHeight = getHeight() - MARGIN*2;
+
+		// The axes, with a label at every power of ten on the y axis and every amount on the x axis
+		g2d.setColor(Color.BLACK);
+		g2d.drawLine(MARGIN, MARGIN, MARGIN, MARGIN + plotHeight);
+		g2d.drawLine(MARGIN, MARGIN + plotHeight, MARGIN + plotWidth, MARGIN + plotHeight);
+		for(int power = (int)minY; power <= maxY; power++){
+			int y = toY(power, minY, maxY, plotHeight);
+			g2d.drawLine(MARGIN-3, y, MARGIN, y);
+			g2d.drawString("1e" + power, 5, y+5);
+		}
+		for(Measurement measurement : measurements){
+			if(!measurement.getDistribution().equals(distribution) || !measurement.getSortMethod().equals(Sorter.SORT_METHODS[0])) continue;
+			int x = toX(Math.log10(measurement.getAmount()), minX, maxX, plotWidth);
+			g2d.drawLine(x, MARGIN + plotHeight, x, MARGIN + plotHeight + 3);
+			g2d.drawString(Integer.toString(measurement.getAmount()), x-10, MARGIN + plotHeight + 18);
+		}
+		g2d.drawString(metric + " against amount of data (" + distribution + ")", MARGIN, MARGIN/2);
+
+		// And a line for each method of sorting, joining its measurements in order of amount
+		for(int i = 0; i < Sorter.SORT_METHODS.length; i++){
+			String sortMethod = Sorter.SORT_METHODS[i];
+			g2d.setColor(COLORS[i % COLORS.length]);
+
+			int lastX = -1, lastY = -1;
+			for(Measurement measurement : measurements){
+				if(!measurement.getSortMethod().equals(sortMethod) || !measurement.getDistribution().equals(distribution)) continue;
+				if(measurement.get(metric) <= 0) continue;
+
+				int x = toX(Math.log10(measurement.getAmount()), minX, maxX, plotWidth);
+				int y = toY(Math.log10(measurement.get(metric)), minY, maxY, plotHeight);
+				g2d.fillOval(x-2, y-2, 5, 5);
+				if(lastX >= 0) g2d.drawLine(lastX, lastY, x, y);
+				lastX = x;
+				lastY = y;
+			}
+
+			g2d.drawString(sortMethod, getWidth() - LEGEND_WIDTH, MARGIN + i*20);
+		}
+	}
+
+	/**
+	 * Converts a log value on the x axis to the x position to draw it at.
+	 */
+	private int toX(double value, double min, double max, int plotWidth){
+		return MARGIN + (int)((value - min) / (max - min) * plotWidth);
+	}
+
+	/**
+	 * Converts a log value on the y axis to the y position to draw it at.
+	 */
+	private int toY(double value, double min, double max, int plotHeight){
+		return MARGIN + plotHeight - (int)((value - min) / (max - min) * plotHeight);
+	}
+}
@@ -0,0 +1,278 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Measures how every method of sorting scales, by sorting each distribution
+ * of data at geometrically increasing sizes, and fits the results to
+ * n, n log n, n log^2 n and n^2 models.
+ */
+public class Profiler {
+	// The smallest and largest amounts of data to sort; each amount is GROWTH times the last
+	private static final int MIN_AMOUNT = 16;
+	private static final int MAX_AMOUNT = 4096;
+	private static final int GROWTH = 2;
+
+	// How many times to sort each configuration; the fastest time is kept,
+	// so that JIT compilation and garbage collection don't skew the results
+	private static final int REPEATS = 5;
+	// How many times, and for at least how long, to sort each configuration before measuring it,
+	// so that the sort has been compiled for data of that size before we start timing it
+	private static final int WARM_UPS = 2;
+	private static final long WARM_UP_NANOS = 20_000_000;
+	// How long to sort with each method before the whole sweep, so that the JIT has finished
+	// compiling the sorts before the first (smallest) configurations are measured
+	private static final long SWEEP_WARM_UP_NANOS = 200_000_000;
+	private static final int SWEEP_WARM_UP_AMOUNT = 256;
+
+	// Every sort sees the same data for the same distribution and amount
+	private static final long SEED = 0;
+
+	// The models that measurements are fitted to; n log^2 n is for sorting networks such as bitonic sort
+	public static final String[] MODELS = { "n", "n log n", "n log^2 n", "n^2" };
+
+	private Sorter sorter;
+
+	private List<Measurement> measurements = new ArrayList<Measurement>();
+	private List<Fit> fits = new ArrayList<Fit>();
+
+	public Profiler(Sorter sorter){
+		this.sorter = sorter;
+	}
+
+	/**
+	 * Sorts every distribution at every amount with every method of sorting,
+	 * then fits the measurements. Replaces any previous results.
+	 */
+	public void run(){
+		measurements.clear();
+		fits.clear();
+
+		for(String sortMethod : Sorter.SORT_METHODS){
+			long warmUpStart = System.nanoTime();
+			while(System.nanoTime() - warmUpStart < SWEEP_WARM_UP_NANOS)
+				for(String distribution : Sorter.DISTRIBUTIONS)
+					sorter.measureSort(sortMethod, distribution, Sorter.createData(distribution, SWEEP_WARM_UP_AMOUNT, new Random(SEED)));
+
+			for(String distribution : Sorter.DISTRIBUTIONS){
+				List<Measurement> series = new ArrayList<Measurement>();
+				for(int amount = MIN_AMOUNT; amount <= MAX_AMOUNT; amount *= GROWTH)
+					series.add(measure(sortMethod, distribution, amount));
+				measurements.addAll(series);
+
+				for(String metric : Measurement.METRICS){
+					Fit fit = fit(series, metric);
+					if(fit != null) fits.add(fit);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Sorts one configuration at least WARM_UPS times (and for at least WARM_UP_NANOS) without
+	 * measuring it, then REPEATS times, keeping the fastest time and smallest allocation.
+	 * The amount of comparisons and writes is the same every time, because the data is.
+	 *
+	 * If the configuration has already been profiled, the measurement is taken from the
+	 * sorter's run cache instead. Runs from the GUI aren't timed, so they're sorted again.
+	 */
+	private Measurement measure(String sortMethod, String distribution, int amount){
+		String key = RunCache.key(sortMethod, distribution, amount, SEED);
+		RunResult cached = sorter.getRunCache().get(key);
+		if(cached != null && cached.getMeasurement().getNanos() >= 0)
+			return cached.getMeasurement();
+
+		long warmUpStart = System.nanoTime();
+		for(int i = 0; i < WARM_UPS || System.nanoTime() - warmUpStart < WARM_UP_NANOS; i++)
+			sorter.measureSort(sortMethod, distribution, Sorter.createData(distribution, amount, new Random(SEED)));
+
+		Measurement best = null;
+		int[] data = null;
+		for(int i = 0; i < REPEATS; i++){
+			data = Sorter.createData(distribution, amount, new Random(SEED));
+			Measurement measurement = sorter.measureSort(sortMethod, distribution, data);
+			if(best == null){
+				best = measurement;
+				continue;
+			}
+			best = new Measurement(sortMethod, distribution, amount,
+					measurement.getComparisons(), measurement.getWrites(),
+					Math.min(best.getNanos(), measurement.getNanos()),
+					Math.min(best.getAllocatedBytes(), measurement.getAllocatedBytes()));
+		}
+
+		// If the GUI recorded the operations for this run, keep them
+		sorter.getRunCache().put(key, new RunResult(data, best, cached == null ? null : cached.getOperations()));
+		return best;
+	}
+
+	/**
+	 * Fits one metric of a series of measurements to each of the models, returning the best fit.
+	 *
+	 * The fit is done on a log scale, so that the largest amounts don't drown out the smallest;
+	 * for each model f, the coefficient c minimises the squared error of log(value) against
+	 * log(c * f(n)), and the error is the standard deviation of log(value / f(n)).
+	 * Measurements with a value of 0 or less can't be put on a log scale, so they are ignored.
+	 *
+	 * @return The best fit, or null if there aren't at least two measurements to fit.
+	 */
+	public static Fit fit(List<Measurement> series, String metric){
+		List<Measurement> usable = new ArrayList<Measurement>();
+		for(Measurement measurement : series)
+			if(measurement.get(metric) > 0) usable.add(measurement);
+		if(usable.size() < 2) return null;
+
+		Fit best = null;
+		for(String model : MODELS){
+			double[] residuals = new double[usable.size()];
+			double mean = 0;
+			for(int i = 0; i < residuals.length; i++){
+				Measurement measurement = usable.get(i);
+				residuals[i] = Math.log(measurement.get(metric)) - Math.log(evaluate(model, measurement.getAmount()));
+				mean += residuals[i];
+			}
+			mean /= residuals.length;
+
+			double variance = 0;
+			for(double residual : residuals)
+				variance += (residual - mean) * (residual - mean);
+			double error = Math.sqrt(variance / residuals.length);
+
+			if(best == null || error < best.getError()){
+				Measurement first = usable.get(0);
+				best = new Fit(first.getSortMethod(), first.getDistribution(), metric, model, Math.exp(mean), error);
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * Evaluates a model at the given amount of data.
+	 * @param model One of MODELS.
+	 */
+	public static double evaluate(String model, int amount){
+		switch(model){
+			case "n": return amount;
+			case "n log n": return amount * log2(amount);
+			case "n log^2 n": return amount * log2(amount) * log2(amount);
+			case "n^2": return (double)amount * amount;
+		}
+		throw new IllegalArgumentException("Unknown model: " + model);
+	}
+
+	private static double log2(int amount){
+		return Math.log(amount) / Math.log(2);
+	}
+
+	/**
+	 * Writes every measurement to the given file, one per line, as CSV.
+	 */
+	public void writeCsv(File file) throws IOException{
+		try(PrintWriter out = new PrintWriter(file, "UTF-8")){
+			out.print("sortMethod,distribution,amount");
+			for(String metric : Measurement.METRICS)
+				out.print("," + metric);
+			out.println();
+
+			for(Measurement measurement : measurements){
+				out.print(measurement.getSortMethod() + "," + measurement.getDistribution() + "," + measurement.getAmount());
+				for(String metric : Measurement.METRICS)
+					out.print("," + measurement.get(metric));
+				out.println();
+			}
+		}
+	}
+
+	/**
+	 * Writes every measurement and fit to the given file as JSON.
+	 */
+	public void writeJson(File file) throws IOException{
+		try(PrintWriter out = new PrintWriter(file, "UTF-8")){
+			out.println("{");
+			out.println("  \"measurements\": [");
+			for(int i = 0; i < measurements.size(); i++){
+				Measurement measurement = measurements.get(i);
+				out.print("    {\"sortMethod\": \"" + measurement.getSortMethod()
+						+ "\", \"distribution\": \"" + measurement.getDistribution()
+						+ "\", \"amount\": " + measurement.getAmount());
+				for(String metric : Measurement.METRICS)
+					out.print(", \"" + metric + "\": " + measurement.get(metric));
+				out.println(i < measurements.size()-1 ? "}," : "}");
+			}
+			out.println("  ],");
+
+			out.println("  \"fits\": [");
+			for(int i = 0; i < fits.size(); i++){
+				Fit fit = fits.get(i);
+				out.print("    {\"sortMethod\": \"" + fit.getSortMethod()
+						+ "\", \"distribution\": \"" + fit.getDistribution()
+						+ "\", \"metric\": \"" + fit.getMetric()
+						+ "\", \"model\": \"" + fit.getModel()
+						+ "\", \"coefficient\": " + fit.getCoefficient()
+						+ ", \"error\": " + fit.getError());
+				out.println(i < fits.size()-1 ? "}," : "}");
+			}
+			out.println("  ]");
+			out.println("}");
+		}
+	}
+
+	public List<Measurement> getMeasurements(){
+		return measurements;
+	}
+	public List<Fit> getFits(){
+		return fits;
+	}
+
+	/**
+	 * The best model for one metric of one method of sorting on one distribution,
+	 * i.e. metric ~= coefficient * model(n).
+	 */
+	public static class Fit {
+		private final String sortMethod;
+		private final String distribution;
+		private final String metric;
+		private final String model;
+		private final double coefficient;
+		// The standard deviation of the log of the ratio between the measurements and the model;
+		// close to 0 means that the metric follows the model closely.
+		private final double error;
+
+		public Fit(String sortMethod, String distribution, String metric, String model, double coefficient, double error){
+			this.sortMethod = sortMethod;
+			this.distribution = distribution;
+			this.metric = metric;
+			this.model = model;
+			this.coefficient = coefficient;
+			this.error = error;
+		}
+
+		public String getSortMethod(){
+			return sortMethod;
+		}
+		public String getDistribution(){
+			return distribution;
+		}
+		public String getMetric(){
+			return metric;
+		}
+		public String getModel(){
+			return model;
+		}
+		public double getCoefficient(){
+			return coefficient;
+		}
+		public double getError(){
+			return error;
+		}
+
+		@Override
+		public String toString(){
+			return String.format("%s, %s, %s: %.3g * %s (error %.3f)",
+					sortMethod, distribution, metric, coefficient, model, error);
+		}
+	}
+}
@@ -0,0 +1,87 @@
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * Keeps the results of completed sorts, so that sorting the same data with the same
+ * method again doesn't have to redo the work. Results are keyed by the method of sorting,
+ * distribution, amount and seed, which together decide exactly what data gets sorted.
+ *
+ * Holds at most a given amount of bytes of results; when adding a result goes over that,
+ * the least recently used results are evicted until it fits again.
+ *
+ * Safe to share between threads.
+ */
+public class RunCache {
+	private final long maxBytes;
+	private long bytes = 0;
+
+	// Access ordered, so that iterating starts at the least recently used result
+	private final LinkedHashMap<String, RunResult> runs = new LinkedHashMap<String, RunResult>(16, 0.75f, true);
+
+	/**
+	 * @param maxBytes How many bytes of results this can hold at once.
+	 */
+	public RunCache(long maxBytes){
+		this.maxBytes = maxBytes;
+	}
+
+	/**
+	 * Creates the key to store the result of a sort under.
+	 */
+	public static String key(String sortMethod, String distribution, int amount, long seed){
+		return sortMethod + "|" + distribution + "|" + amount + "|" + seed;
+	}
+
+	/**
+	 * Returns the result stored under the given key, or null if there isn't one.
+	 * This counts as using the result, so it will be evicted later.
+	 */
+	public synchronized RunResult get(String key){
+		return runs.get(key);
+	}
+
+	/**
+	 * Stores a result under the given key, replacing any that was there,
+	 * and evicts the least recently used results until everything fits.
+	 * @return Whether the result was stored; it won't be if it's bigger than the whole cache.
+	 */
+	public synchronized boolean put(String key, RunResult run){
+		if(run.sizeInBytes() > maxBytes) return false;
+
+		RunResult old = runs.remove(key);
+		if(old != null) bytes -= old.sizeInBytes();
+		runs.put(key, run);
+		bytes += run.sizeInBytes();
+
+		// The new result is the most recently used, so it's the last one to be evicted; as it fits
+		// on its own, this never gets to it
+		Iterator<RunResult> leastRecent = runs.values().iterator();
+		while(bytes > maxBytes){
+			bytes -= leastRecent.next().sizeInBytes();
+			leastRecent.remove();
+		}
+		return true;
+	}
+
+	/**
+	 * Removes every result.
+	 */
+	public synchronized void clear(){
+		runs.clear();
+		bytes = 0;
+	}
+
+	/**
+	 * Returns how many results are held.
+	 */
+	public synchronized int size(){
+		return runs.size();
+	}
+
+	/**
+	 * Returns roughly how many bytes the held results take up.
+	 */
+	public synchronized long getBytes(){
+		return bytes;
+	}
+}
@@ -0,0 +1,51 @@
+/**
+ * The result of one completed sort, as kept in a RunCache.
+ * Never changes once created, so it can be shared between threads.
+ */
+public class RunResult {
+	// A rough allowance for the objects around the arrays, and the key the result is stored under
+	private static final long OVERHEAD_BYTES = 256;
+
+	private final int[] data;
+	private final Measurement measurement;
+	private final OperationStream operations;
+	private final long sizeInBytes;
+
+	/**
+	 * @param data The sorted data. This is copied, so it can keep being used.
+	 * @param measurement The work the sort took.
+	 * @param operations Every access the sort made to the data, or null if they weren't recorded.
+	 * Nothing else can be recorded to it afterwards.
+	 */
+	public RunResult(int[] data, Measurement measurement, OperationStream operations){
+		this.data = data.clone();
+		this.measurement = measurement;
+		this.operations = operations;
+
+		if(operations != null) operations.trim();
+		sizeInBytes = OVERHEAD_BYTES + (long)data.length * 4
+				+ (operations == null ? 0 : operations.sizeInBytes());
+	}
+
+	/**
+	 * Returns a copy of the sorted data.
+	 */
+	public int[] getData(){
+		return data.clone();
+	}
+	public Measurement getMeasurement(){
+		return measurement;
+	}
+	/**
+	 * Returns every access the sort made to the data, or null if they weren't recorded.
+	 */
+	public OperationStream getOperations(){
+		return operations;
+	}
+	/**
+	 * Returns roughly how many bytes of memory this takes up.
+	 */
+	public long sizeInBytes(){
+		return sizeInBytes;
+	}
+}
@@ -1,12 +1,76 @@
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
 public class Sorter {
+	// How many worker threads the parallel sorts split each phase between
+	private static final int WORKER_COUNT = Runtime.getRuntime().availableProcessors();
+
+	// The workers are shared between sorts, so that starting a sort doesn't have to start threads
+	// (which would otherwise take up most of the time of a small parallel sort).
+	// They're daemons, so that they don't stop the program from exiting.
+	private static final List<Thread> WORKER_THREADS = Collections.synchronizedList(new ArrayList<Thread>());
+	private static final ExecutorService WORKERS = Executors.newFixedThreadPool(WORKER_COUNT, new ThreadFactory(){
+		public Thread newThread(Runnable runnable){
+			Thread thread = new Thread(runnable, "Sort Worker");
+			thread.setDaemon(true);
+			// Remembered so that what they allocate can be measured
+			WORKER_THREADS.add(thread);
+			return thread;
+		}
+	});
+
+	// Every method of sorting, in the order that they are shown on the GUI
+	public static final String[] SORT_METHODS = { "Selection Sort", "Insertion Sort", "Bubble Sort",
+		"Merge Sort", "Quick Sort", "Bitonic Sort", "Odd-Even Sort" };
+
+	// Every distribution that the data to sort can be created with
+	public static final String[] DISTRIBUTIONS = { "Random", "Sorted", "Reversed", "Nearly Sorted", "Few Unique" };
+
+	// Where profiling reports are written to
+	private static final String PROFILE_CSV = "profile.csv";
+	private static final String PROFILE_JSON = "profile.json";
+
+	// How many bytes of completed runs to keep, so that they don't have to be sorted again
+	private static final long RUN_CACHE_BYTES = 64L * 1024 * 1024;
+
 	private GUI gui;
 	private int[] data;
 
+	private final RunCache runCache = new RunCache(RUN_CACHE_BYTES);
+
 	// Whether or not a sort is currently being performed
 	private boolean isSorting = false;
 
+	/**
+	 * Starts the GUI, or without a GUI:
+	 * "profile" profiles every method of sorting and writes the reports;
+	 * "cache [amount] [L1 L2 LLC lineSize ways]" simulates the cache
+	 * with every method of sorting and distribution, and prints the results.
+	 */
 	public static void main(String[] args){
 		Sorter sorter = new Sorter();
+		if(args.length > 0 && args[0].equals("profile")){
+			Profiler profiler = sorter.profile();
+			for(Profiler.Fit fit : profiler.getFits())
+				System.out.println(fit);
+			return;
+		}
+		if(args.length > 0 && args[0].equals("cache")){
+			sorter.simulateCaches(args);
+			return;
+		}
         sorter.gui = new GUI(sorter);
 	}
 
@@ -19,6 +83,13 @@ public class Sorter {
 		return isSorting;
 	}
 
+	/**
+	 * Returns the results of the sorts that this sorter has completed.
+	 */
+	public RunCache getRunCache(){
+		return runCache;
+	}
+
 	/**
 	 * Updates the GUI's view of the data and repaints it.
 	 * @param considering The current indices of the data which is being considered.
@@ -32,7 +103,191 @@ public class Sorter {
 	 * Begins a new sort, with the parameters taken directly from this Sorter's GUI.
 	 */
 	public void beginSort(){
-		new Thread(new InternalSorter()).start();
+		new Thread(new InternalSorter(true)).start();
+	}
+
+	/**
+	 * Begins profiling every method of sorting on a separate thread,
+	 * showing the results on the GUI when finished.
+	 */
+	public void beginProfile(){
+		isSorting = true;
+		new Thread(new Runnable(){
+			public void run(){
+				try{
+					Profiler profiler = profile();
+					gui.showProfile(profiler);
+				}
+				finally{
+					isSorting = false;
+				}
+			}
+		}).start();
+	}
+
+	/**
+	 * Profiles every method of sorting on this thread,
+	 * and writes the reports to the working directory.
+	 * @return The profiler, holding the measurements and fits.
+	 */
+	private Profiler profile(){
+		Profiler profiler = new Profiler(this);
+		profiler.run();
+		try{
+			profiler.writeCsv(new File(PROFILE_CSV));
+			profiler.writeJson(new File(PROFILE_JSON));
+			System.out.println("Wrote profile to " + PROFILE_CSV + " and " + PROFILE_JSON);
+		}
+		catch(IOException e){
+			System.out.println("Couldn't write profile. " + e);
+		}
+		return profiler;
+	}
+
+	/**
+	 * Creates a data set with the given amount of elements, all between 1 and amount (inclusive).
+	 * @param distribution How the data is arranged; one of DISTRIBUTIONS.
+	 * @param amount The amount of data points to create.
+	 * @param random Where to get the randomness from.
+	 */
+	public static int[] createData(String distribution, int amount, Random random){
+		// Just ints with even intervals is fine
+		int[] data = new int[amount];
+		for(int i = 0; i < data.length; i++)
+			data[i] = i+1; // We don't want any data to be 0 because it would have 0 height in the GUI
+
+		switch(distribution){
+			case "Random":
+				// Not concerned with "true" or even approximate randomness, just jumbledness
+				jumble(data, data.length, random);
+				break;
+			case "Reversed":
+				for(int i = 0; i < data.length; i++)
+					data[i] = data.length - i;
+				break;
+			case "Nearly Sorted":
+				// Only swap around a few of the elements
+				jumble(data, Math.max(1, data.length/20), random);
+				break;
+			case "Few Unique":
+				// Only use five different values, spread out over the range
+				for(int i = 0; i < data.length; i++)
+					data[i] = Math.max(1, (random.nextInt(5)+1) * data.length / 5);
+				break;
+		}
+		return data;
+	}
+
+	/**
+	 * Swaps the given amount of random pairs of data.
+	 */
+	private static void jumble(int[] data, int swaps, Random random){
+		// There's nothing to pick from
+		if(data.length == 0) return;
+
+		for(int i = 0; i < swaps; i++){
+			int index1 = random.nextInt(data.length);
+			int index2 = random.nextInt(data.length);
+
+			int temp = data[index1];
+			data[index1] = data[index2];
+			data[index2] = temp;
+		}
+	}
+
+	/**
+	 * Sorts the given data on this thread without updating the GUI or pausing,
+	 * and measures how much work it took.
+	 * @param sortMethod The method of sorting to use; one of SORT_METHODS.
+	 * @param distribution The distribution that the data was created with.
+	 * @param data The data to sort.
+	 * @return The measurement of the sort.
+	 */
+	public Measurement measureSort(String sortMethod, String distribution, int[] data){
+		InternalSorter sorter = new InternalSorter(false);
+
+		// Asking how much has been allocated allocates a little itself, so take that off
+		long overhead = -allocatedBytes() + allocatedBytes();
+
+		long startBytes = allocatedBytes();
+		long startTime = System.nanoTime();
+		sorter.sort(sortMethod, data, 0);
+		long nanos = System.nanoTime() - startTime;
+		long bytes = startBytes < 0 ? -1 : Math.max(0, allocatedBytes() - startBytes - overhead);
+
+		return new Measurement(sortMethod, distribution, data.length,
+				sorter.comparisons, sorter.writes, nanos, bytes);
+	}
+
+	/**
+	 * Sorts the given data on this thread without updating the GUI or pausing,
+	 * passing every read and write of the data through the given cache.
+	 * @param sortMethod The method of sorting to use; one of SORT_METHODS.
+	 * @param data The data to sort.
+	 * @param cache The cache to simulate, which should be for the same amount of data.
+	 */
+	public void simulateCache(String sortMethod, int[] data, CacheSimulator cache){
+		InternalSorter sorter = new InternalSorter(false);
+		sorter.cache = cache;
+		sorter.sort(sortMethod, data, 0);
+	}
+
+	/**
+	 * Simulates the cache with every method of sorting and distribution, printing the results.
+	 * @param args The command line arguments; after "cache", optionally the amount of data,
+	 * then optionally the sizes of L1, L2 and LLC, the line size and the ways, all in bytes.
+	 */
+	private void simulateCaches(String[] args){
+		int amount, l1, l2, llc, lineSize, ways;
+		try{
+			amount = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+			l1 = args.length > 2 ? Integer.parseInt(args[2]) : CacheSimulator.DEFAULT_L1_SIZE;
+			l2 = args.length > 3 ? Integer.parseInt(args[3]) : CacheSimulator.DEFAULT_L2_SIZE;
+			llc = args.length > 4 ? Integer.parseInt(args[4]) : CacheSimulator.DEFAULT_LLC_SIZE;
+			lineSize = args.length > 5 ? Integer.parseInt(args[5]) : CacheSimulator.DEFAULT_LINE_SIZE;
+			ways = args.length > 6 ? Integer.parseInt(args[6]) : CacheSimulator.DEFAULT_WAYS;
+			if(amount < 0) throw new IllegalArgumentException("The amount of data can't be negative");
+			// Check the sizes before sorting anything, rather than part way through
+			new CacheSimulator(amount, lineSize, ways, l1, l2, llc);
+		}
+		catch(IllegalArgumentException e){
+			// Also catches NumberFormatException
+			System.out.println(e.getMessage());
+			System.out.println("Usage: java Sorter cache [amount] [L1 L2 LLC lineSize ways], with sizes in bytes");
+			return;
+		}
+
+		for(String sortMethod : SORT_METHODS){
+			for(String distribution : DISTRIBUTIONS){
+				int[] data = createData(distribution, amount, new Random(0));
+				CacheSimulator cache = new CacheSimulator(amount, lineSize, ways, l1, l2, llc);
+				simulateCache(sortMethod, data, cache);
+				System.out.println(sortMethod + ", " + distribution + ":\n" + cache + "\n");
+			}
+		}
+	}
+
+	/**
+	 * Returns the amount of bytes that this thread and the workers have allocated so far,
+	 * or -1 if the JVM can't tell us. The workers are shared, so this includes what they
+	 * have allocated for any other sort running at the same time.
+	 */
+	private static long allocatedBytes(){
+		ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		if(!(threads instanceof com.sun.management.ThreadMXBean)) return -1;
+
+		com.sun.management.ThreadMXBean sunThreads = (com.sun.management.ThreadMXBean)threads;
+		if(!sunThreads.isThreadAllocatedMemorySupported() || !sunThreads.isThreadAllocatedMemoryEnabled()) return -1;
+
+		long bytes = sunThreads.getThreadAllocatedBytes(Thread.currentThread().getId());
+		synchronized(WORKER_THREADS){
+			for(Thread worker : WORKER_THREADS){
+				// Workers which have stopped can't be measured any more, but also can't allocate any more
+				long workerBytes = sunThreads.getThreadAllocatedBytes(worker.getId());
+				if(workerBytes > 0) bytes += workerBytes;
+			}
+		}
+		return bytes;
 	}
 
 	/**
@@ -44,8 +299,31 @@ public class Sorter {
 	 *
 	 */
 	private class InternalSorter implements Runnable{
+		// Whether to show the sort on the GUI and pause between comparisons
+		private final boolean visualise;
+
+		// How many comparisons and writes to the data this sort has performed
+		private long comparisons = 0;
+		private long writes = 0;
+
+		// The cache to pass every read and write of the data through, or null if not simulating one
+		private CacheSimulator cache;
+
+		// Where to record every read and write of the data, or null if not recording them
+		private OperationStream operations;
+
+		public InternalSorter(boolean visualise){
+			this.visualise = visualise;
+		}
+
 		public void run(){
-			beginSort(gui.getSortMethod(), gui.getAmount(), gui.getDelay());
+			try{
+				beginSort(gui.getSortMethod(), gui.getDistribution(), gui.getAmount(), gui.getSeed(), gui.getDelay());
+			}
+			finally{
+				// Also if the sort was stopped part way through
+				isSorting = false;
+			}
 		}
 
 		/**
@@ -64,34 +342,135 @@ public class Sorter {
 			}
 		}
 
+		/**
+		 * Records a comparison involving the data at the given index. If visualising,
+		 * also shows it on the GUI and pauses for the delay.
+		 * (There's no varargs version, so that nothing is allocated when not visualising.)
+		 * @param delay The delay to pause for.
+		 * @param index The index of the data being compared.
+		 */
+		private void compare(double delay, int index){
+			comparisons++;
+			if(visualise) showComparison(delay, new int[]{index});
+		}
+
+		/**
+		 * Records a comparison of the data at the given indices. If visualising,
+		 * also shows it on the GUI and pauses for the delay.
+		 * @param delay The delay to pause for.
+		 * @param index1 The index of one of the data being compared.
+		 * @param index2 The index of the other data being compared.
+		 */
+		private void compare(double delay, int index1, int index2){
+			comparisons++;
+			if(visualise) showComparison(delay, new int[]{index1, index2});
+		}
+
+		/**
+		 * Shows a comparison on the GUI and pauses for the delay.
+		 * @param considering The indices of the data being compared.
+		 */
+		private void showComparison(double delay, int[] considering){
+			gui.incrementComparisons();
+			show(considering);
+			pause(delay);
+		}
+
+		/**
+		 * Shows the data on the GUI, along with what the cache has done if simulating one.
+		 * @param considering The current indices of the data which is being considered.
+		 */
+		private void show(int[] considering){
+			if(cache != null) gui.updateCache(cache);
+			update(considering);
+		}
+
+		/**
+		 * Reads a value from the data, passing it through the cache if simulating one,
+		 * and recording it if recording operations.
+		 */
+		private int read(int[] data, int index){
+			if(cache != null) cache.read(index);
+			if(operations != null) operations.read(index);
+			return data[index];
+		}
+
+		/**
+		 * Writes a value into the data, recording the write (and the operation if
+		 * recording them) and passing it through the cache if simulating one.
+		 */
+		private void write(int[] data, int index, int value){
+			writes++;
+			if(cache != null) cache.write(index);
+			if(operations != null) operations.write(index);
+			data[index] = value;
+		}
+
 		/**
 		 * Begins performing a sort and sending data to the GUI.
-		 * @param sortMethod The method of sorting to use. Valid input is as follows:
-		 * "Selection Sort" -> doSelectionSort
+		 * If the same sort has been done before, shows its result straight away instead.
+		 * @param sortMethod The method of sorting to use; one of SORT_METHODS.
+		 * @param distribution The distribution to create the data with; one of DISTRIBUTIONS.
 		 * @param amount The amount of data points to sort.
+		 * @param seed The seed to create the data with.
 		 * @param delay The pause, in ms, between each comparison operation.
 		 */
-		private void beginSort(String sortMethod, int amount, int delay){
+		private void beginSort(String sortMethod, String distribution, int amount, long seed, int delay){
 			gui.resetComparisons();
 			isSorting = true;
 
-			// Create a data set (just ints with even intervals is fine) with the specified amount of elements
-			data = new int[amount];
-			for(int i = 0; i < data.length; i++)
-				data[i] = i+1; // We don't want any data to be 0 because it would have 0 height in the GUI
+			data = createData(distribution, amount, new Random(seed));
+			cache = gui.createCacheSimulator(amount);
+			gui.setData(data);
 
-			// Randomise this data set (not concerned with "true" or even approximate randomness, just jumbledness)
-			for(int i = 0; i < data.length; i++){
-				int index1 = (int)(Math.random()*data.length);
-				int index2 = (int)(Math.random()*data.length);
+			String key = RunCache.key(sortMethod, distribution, amount, seed);
+			RunResult cached = runCache.get(key);
+			// Simulating the cache needs the operations, and the result might not have them
+			// (e.g. if it came from profiling), in which case we have to sort again after all
+			if(cached != null && (cache == null || cached.getOperations() != null)){
+				// The cache can be simulated from the recorded operations, without sorting again
+				if(cache != null)
+					cached.getOperations().replay(cache);
+				data = cached.getData();
+				gui.showCachedComparisons(cached.getMeasurement().getComparisons());
+				show(new int[]{});
+
+				// It's meant to be instant, so skip going over the sorted data
+				isSorting = false;
+				return;
+			}
+
+			// The operations are only needed to simulate the cache again later, and they can be big
+			if(cache != null) operations = new OperationStream();
+			sort(sortMethod, data, delay);
 
-				int temp = data[index1];
-				data[index1] = data[index2];
-				data[index2] = temp;
+			// The time isn't worth keeping, as it's mostly spent pausing; so if the result was
+			// already there from profiling, keep its measurement and just add the operations
+			Measurement measurement = new Measurement(sortMethod, distribution, amount, comparisons, writes, -1, -1);
+			if(cached != null && cached.getMeasurement().getNanos() >= 0)
+				measurement = cached.getMeasurement();
+			runCache.put(key, new RunResult(data, measurement, operations));
+
+			for(int i = 0; i < data.length; i++){
+				int[] highlight = new int[i+1];
+				for(int j = 0; j <= i; j++){
+					highlight[j] = j;
+				}
+				update(highlight);
+				pause(delay);
 			}
+			update(new int[]{});
 
-			gui.setData(data);
+			isSorting = false;
+		}
 
+		/**
+		 * Sorts the given data with the given method.
+		 * @param sortMethod The method of sorting to use; one of SORT_METHODS.
+		 * @param data The data to sort.
+		 * @param delay The pause, in ms, between each comparison operation.
+		 */
+		private void sort(String sortMethod, int[] data, int delay){
 			// Select the correct method based on the type of sort
 			switch(sortMethod){
 				case "Selection Sort":
@@ -109,19 +488,13 @@ public class Sorter {
 				case "Quick Sort":
 					doQuickSort(data, delay);
 					break;
+				case "Bitonic Sort":
+					doBitonicSort(data, delay);
+					break;
+				case "Odd-Even Sort":
+					doOddEvenSort(data, delay);
+					break;
 			}
-
-			for(int i = 0; i < data.length; i++){
-				int[] highlight = new int[i+1];
-				for(int j = 0; j <= i; j++){
-					highlight[j] = j;
-				}
-				update(highlight);
-				pause(delay);
-			}
-			update(new int[]{});
-
-			isSorting = false;
 		}
 
 		/**
@@ -134,18 +507,20 @@ public class Sorter {
 			// Go through the entire length of the data set
 			for(int i = 0; i < data.length; i++){
 				// For every index, find the lowest data from the data set greater than this index
+				int firstValue = read(data, i);
 				int minIndex = i;
-				for(int j = i; j < data.length; j++){
-					gui.incrementComparisons();
-					update(new int[]{j});
-					pause(delay);
-					if(data[j] < data[minIndex]) minIndex = j;
+				int minValue = firstValue;
+				for(int j = i+1; j < data.length; j++){
+					compare(delay, j);
+					int value = read(data, j);
+					if(value < minValue){ minIndex = j; minValue = value; }
 				}
 
-				// And swap it into that spot
-				int temp = data[i];
-				data[i] = data[minIndex];
-				data[minIndex] = temp;
+				// And swap it into that spot, unless it's already there
+				if(minIndex != i){
+					write(data, minIndex, firstValue);
+					write(data, i, minValue);
+				}
 			}
 		}
 
@@ -156,24 +531,7 @@ public class Sorter {
 		 * @param delay The delay to use between each comparison.
 		 */
 		private void doInsertionSort(int[] data, double delay){
-			// Go through the entire length of the data set
-			for(int i = 0; i < data.length; i++){
-				// For every index, figure out where it needs to be in the already sorted part of the array
-				int newIndex = 0;
-				for(int j = i-1; j >= 0; j--){
-					if(data[i] >= data[j]){ newIndex = j+1; break; }
-					gui.incrementComparisons();
-					update(new int[]{i,j});
-					pause(delay);
-				}
-
-				// Swap the data up to make room for this data
-				int newData = data[i];
-				for(int j = i; j > newIndex; j--){
-					data[j] = data[j-1];
-				}
-				data[newIndex] = newData;
-			}
+			doInsertionSort(data, delay, 0, data.length);
 		}
 
 		/**
@@ -187,21 +545,20 @@ public class Sorter {
 		private void doInsertionSort(int[] data, double delay, int min, int max){
 			// Go through the data between min and max
 			for(int i = min; i < max; i++){
-				// For every index, figure out where it needs to be in the already sorted part of the array
-				int newIndex = min;
-				for(int j = i-1; j >= min; j--){
-					if(data[i] >= data[j]){ newIndex = j+1; break; }
-					gui.incrementComparisons();
-					update(new int[]{i,j});
-					pause(delay);
+				// For every index, figure out where it needs to be in the already sorted part of the array,
+				// moving the larger data up to make room for it on the way
+				int newData = read(data, i);
+				int newIndex = i;
+				while(newIndex > min){
+					// The data being inserted belongs at newIndex for now, wherever it's actually held
+					compare(delay, newIndex, newIndex-1);
+					int value = read(data, newIndex-1);
+					if(newData >= value) break;
+					write(data, newIndex, value);
+					newIndex--;
 				}
-
-				// Swap the data up to make room for this data
-				int newData = data[i];
-				for(int j = i; j > newIndex; j--){
-					data[j] = data[j-1];
-				}
-				data[newIndex] = newData;
+				// If it was already in the right place, nothing was moved
+				if(newIndex != i) write(data, newIndex, newData);
 			}
 		}
 
@@ -217,16 +574,15 @@ public class Sorter {
 				int swapCount = 0;
 				for(int i = 0; i < data.length-1; i++){
 					// Consider, for all data points except the last, the point and the next point
-					gui.incrementComparisons();
-					update(new int[]{i, i+1});
-					pause(delay);
+					compare(delay, i, i+1);
 
 					// Are they in the wrong order?
-					if(data[i] >= data[i+1]){
+					int value = read(data, i);
+					int nextValue = read(data, i+1);
+					if(value > nextValue){
 						// Swap them if so
-						int temp = data[i];
-						data[i] = data[i+1];
-						data[i+1] = temp;
+						write(data, i, nextValue);
+						write(data, i+1, value);
 						swapCount++;
 					}
 				}
@@ -256,19 +612,18 @@ public class Sorter {
 		 * @param max The maximum index to consider (inclusive).
 		 */
 		private void doMergeSort(int[] data, int delay, int min, int max){
-			// If the data only has one element, return
-			if(max == min)
+			// If the data only has one element (or none), return
+			if(max <= min)
 				return;
 			// If it has two, sort them and return
 			if(max-min == 1){
-				gui.incrementComparisons();
-				update(new int[]{min, max});
-				pause(delay);
+				compare(delay, min, max);
 
-				if(data[max] < data[min]){
-					int temp = data[max];
-					data[max] = data[min];
-					data[min] = temp;
+				int minValue = read(data, min);
+				int maxValue = read(data, max);
+				if(maxValue < minValue){
+					write(data, min, maxValue);
+					write(data, max, minValue);
 				}
 
 				return;
@@ -294,37 +649,44 @@ public class Sorter {
 			int i = 0;
 			int[] newData = new int[max-min+1];
 
-			// Continue until either we've gone through all the items in the left part, or in the right part
-			while(leftPointer < mid && rightPointer <= max){
-				gui.incrementComparisons();
-				update(new int[]{leftPointer, rightPointer});
-				pause(delay);
-
-				if(data[leftPointer] > data[rightPointer]){
-					newData[i] = data[rightPointer];
-					rightPointer++;
-				}
-				else{
-					newData[i] = data[leftPointer];
-					leftPointer++;
+			// Continue until either we've gone through all the items in the left part, or in the right part.
+			// Each item is only read once, when its pointer gets to it
+			if(leftPointer < mid && rightPointer <= max){
+				int leftValue = read(data, leftPointer);
+				int rightValue = read(data, rightPointer);
+				while(true){
+					compare(delay, leftPointer, rightPointer);
+
+					if(leftValue > rightValue){
+						newData[i++] = rightValue;
+						rightPointer++;
+						// The left item has already been read, so take it now rather than reading it again below
+						if(rightPointer > max){ newData[i++] = leftValue; leftPointer++; break; }
+						rightValue = read(data, rightPointer);
+					}
+					else{
+						newData[i++] = leftValue;
+						leftPointer++;
+						if(leftPointer >= mid){ newData[i++] = rightValue; rightPointer++; break; }
+						leftValue = read(data, leftPointer);
+					}
 				}
-				i++;
 			}
 
 			// And shove the other one onto the end (only one of these does anything)
 			while(leftPointer < mid){
-				newData[i] = data[leftPointer];
+				newData[i] = read(data, leftPointer);
 				leftPointer++;
 				i++;
 			}
 			while(rightPointer <= max){
-				newData[i] = data[rightPointer];
+				newData[i] = read(data, rightPointer);
 				rightPointer++;
 				i++;
 			}
 
 			for(int j = min; j <= max; j++)
-				data[j] = newData[j-min];
+				write(data, j, newData[j-min]);
 		}
 
 		/**
@@ -353,48 +715,59 @@ public class Sorter {
 				return;
 			}
 
-			// Otherwise, choose a pivot point and put data below it on the left and data above it on the right
-			int pivotIndex = choosePivotPoint(data, delay, min, max);
-			int pivotPoint = data[pivotIndex];
+			// Otherwise, choose a pivot point and put data below it on the left, data equal to it in
+			// the middle and data above it on the right. Only the left and right need sorting afterwards,
+			// so repeated values (which all end up in the middle) don't get sorted over and over again.
+			int pivotPoint = choosePivotPoint(data, delay, min, max);
 
-			// Indices of where to swap data to
-			int leftIndex = min-1;
-			int rightIndex = max;
+			int lessEnd = partition(data, delay, min, max, pivotPoint, false);
+			int greaterStart = partition(data, delay, lessEnd, max, pivotPoint, true);
 
-			while(leftIndex <= rightIndex){
-				// Check if they're already on the correct side
+			doQuickSort(data, delay, min, lessEnd);
+			doQuickSort(data, delay, greaterStart, max);
+		}
+
+		/**
+		 * Puts the data which is less than the pivot point (or equal to it too, if includeEqual)
+		 * on the left of a section of the data, and the rest on the right.
+		 *
+		 * @param min The minimum index to consider (inclusive).
+		 * @param max The maximum index to consider (exclusive).
+		 * @param pivotPoint The value to split the data around.
+		 * @param includeEqual Whether data equal to the pivot point goes on the left.
+		 * @return The first index of the right part.
+		 */
+		private int partition(int[] data, int delay, int min, int max, int pivotPoint, boolean includeEqual){
+			int leftIndex = min;
+			int rightIndex = max-1;
 
-				// Is the data at the left less than the data at the pivot point?
-				do {
+			while(true){
+				// Find data on the left which belongs on the right
+				int leftValue = 0;
+				while(leftIndex <= rightIndex){
+					leftValue = read(data, leftIndex);
+					compare(delay, leftIndex);
+					if(leftValue > pivotPoint || (leftValue == pivotPoint && !includeEqual)) break;
 					leftIndex++;
-					gui.incrementComparisons();
-					update(new int[]{leftIndex});
-					pause(delay);
 				}
-				while(leftIndex < max && data[leftIndex] < pivotPoint);
 
-				// Is the data on the right more than the data at the pivot point?
-				do{
+				// And data on the right which belongs on the left
+				int rightValue = 0;
+				while(leftIndex < rightIndex){
+					rightValue = read(data, rightIndex);
+					compare(delay, rightIndex);
+					if(rightValue < pivotPoint || (rightValue == pivotPoint && includeEqual)) break;
 					rightIndex--;
-					gui.incrementComparisons();
-					update(new int[]{rightIndex});
-					pause(delay);
 				}
-				while(rightIndex >= min && data[rightIndex] >= pivotPoint);
 
-				if(leftIndex < rightIndex){
-					int temp = data[leftIndex];
-					data[leftIndex] = data[rightIndex];
-					data[rightIndex] = temp;
+				// If they've met, everything is on the correct side; otherwise swap them and keep going
+				if(leftIndex >= rightIndex) return leftIndex;
 
-					gui.incrementComparisons();
-					update(new int[]{leftIndex, rightIndex});
-					pause(delay);
-				}
+				write(data, leftIndex, rightValue);
+				write(data, rightIndex, leftValue);
+				leftIndex++;
+				rightIndex--;
 			}
-
-			doQuickSort(data, delay, min, rightIndex+1);
-			doQuickSort(data, delay, rightIndex+1, max);
 		}
 
 		/**
@@ -402,66 +775,234 @@ public class Sorter {
 		 * Also updates the GUI every comparison, and delays
 		 * between comparisons.
 		 *
-		 * Returns -1 immediately if there are less than 4 items
-		 * in the choice area.
-		 *
 		 * @param data The data to choose the pivot point from.
 		 * @param delay The delay to use between comparisons.
 		 * @param min The minimum index to consider in the data (inclusive).
 		 * @param max The maximum index to consider in the data (exclusive).
 		 *
-		 * @return The index of the chosen pivot point in the data.
+		 * @return The value of the chosen pivot point.
 		 */
 		private int choosePivotPoint(int[] data, int delay, int min, int max){
-			if(max-min < 4) return -1;
-
 			// Grab 3 points: one from the start, one from the middle and one from the end.
 			// These place choices are arbitrary, as the data is not yet sorted.
 			// However, using 3 is important so as not to run into an infinite loop where
 			// we continuously choose the largest or smallest element as the pivot point.
 			int mid = (min+max)/2;
+			int minValue = read(data, min);
+			int midValue = read(data, mid);
+			int maxValue = read(data, max-1);
 			// Take the median of the 3 points to use as our pivot point.
-			int median = min;
+			int median = minValue;
 
-			gui.incrementComparisons();
-			update(new int[]{mid, min});
-			pause(delay);
-			if(data[mid] > data[min]){
-				gui.incrementComparisons();
-				update(new int[]{max-1, mid});
-				pause(delay);
+			compare(delay, mid, min);
+			if(midValue > minValue){
+				compare(delay, max-1, mid);
 
-				if(data[max-1] > data[mid]){
-					median = mid;
+				if(maxValue > midValue){
+					median = midValue;
 				}
 
 				else{
-					gui.incrementComparisons();
-					update(new int[]{max-1, min});
-					pause(delay);
-					if(data[max-1] > data[min]){
-						median = max-1;
+					compare(delay, max-1, min);
+					if(maxValue > minValue){
+						median = maxValue;
 					}
 				}
 			}
-			else if(data[min] > data[max-1]){
-				gui.incrementComparisons();
-				update(new int[]{max-1, min});
-				pause(delay);
+			else if(minValue > maxValue){
+				compare(delay, max-1, min);
 
-				gui.incrementComparisons();
-				update(new int[]{max-1, mid});
-				pause(delay);
+				compare(delay, max-1, mid);
 
-				if(data[max-1] > data[mid]){
-					median = max-1;
+				if(maxValue > midValue){
+					median = maxValue;
 				}
 				else{
-					median = mid;
+					median = midValue;
 				}
 			}
 
 			return median;
 		}
+
+		/**
+		 * Performs bitonic sort on the given data, splitting the compare-exchanges
+		 * of each phase between a pool of workers and updating the GUI once per phase.
+		 * The order of compare-exchanges doesn't depend on the data at all.
+		 *
+		 * The network needs a power of two elements, so indices past the end of the
+		 * data are treated as infinitely large. This only works because every
+		 * compare-exchange puts the smaller value at the lower index; those that
+		 * would touch an index past the end can then just be skipped.
+		 * @param data The data to sort.
+		 * @param delay The delay to use between each phase.
+		 */
+		private void doBitonicSort(int[] data, double delay){
+			int size = 1;
+			while(size < data.length) size *= 2;
+
+			for(int k = 2; k <= size; k *= 2){
+				// The first phase of each merge compares each index with its mirror in the block of k
+				doPhase(data, delay, 0, k/2, true);
+				// And the rest compare indices which are j apart
+				for(int j = k/4; j > 0; j /= 2)
+					doPhase(data, delay, 0, j, false);
+			}
+		}
+
+		/**
+		 * Performs odd-even transposition sort on the given data, splitting the
+		 * compare-exchanges of each phase between a pool of workers and updating
+		 * the GUI once per phase.
+		 * @param data The data to sort.
+		 * @param delay The delay to use between each phase.
+		 */
+		private void doOddEvenSort(int[] data, double delay){
+			// Alternate between comparing the even and odd pairs; as many phases as there
+			// are data points is always enough, so we don't need to check if it's sorted.
+			for(int phase = 0; phase < data.length; phase++)
+				doPhase(data, delay, phase % 2, 1, false);
+		}
+
+		/**
+		 * Performs one phase of a parallel sort; shows all of its compare-exchanges
+		 * on the GUI at once, then splits them evenly between the workers and
+		 * returns once they have all finished.
+		 *
+		 * The pairs of a phase aren't stored anywhere, as they follow a pattern: starting at
+		 * start, the data is split into blocks of 2*half, and the first half of each block is
+		 * compared with the second half. Each pair is worked out from its number when needed
+		 * (see pairCount, lowIndex and highIndex), so a phase costs the same however many pairs it has.
+		 * @param data The data to sort.
+		 * @param delay The delay to use for this phase.
+		 * @param start The first index of the first block.
+		 * @param half Half the size of each block.
+		 * @param mirror Whether the first index of each block is compared with the last and so on
+		 * (as in bitonic sort), rather than with the first of the second half.
+		 * @throws IllegalStateException If the workers didn't finish the phase, e.g. because this thread was interrupted.
+		 */
+		private void doPhase(int[] data, double delay, int start, int half, boolean mirror){
+			int pairCount = pairCount(data.length, start, half);
+			if(pairCount == 0) return;
+
+			comparisons += pairCount;
+			if(visualise){
+				int[] considering = new int[pairCount*2];
+				for(int pair = 0; pair < pairCount; pair++){
+					considering[pair*2] = lowIndex(data.length, start, half, mirror, pair);
+					considering[pair*2+1] = highIndex(data.length, start, half, mirror, pair);
+				}
+				gui.incrementComparisons(pairCount);
+				show(considering);
+				pause(delay);
+			}
+
+			// The order the workers get to the cache and operations in would change from run to run,
+			// so when either is being used, the phase is done here, pair by pair, instead.
+			// The pairs are independent, so this sorts the data the same way.
+			if(cache != null || operations != null){
+				for(int pair = 0; pair < pairCount; pair++){
+					int low = lowIndex(data.length, start, half, mirror, pair);
+					int high = highIndex(data.length, start, half, mirror, pair);
+					int lowValue = read(data, low);
+					int highValue = read(data, high);
+					if(lowValue > highValue){
+						write(data, low, highValue);
+						write(data, high, lowValue);
+					}
+				}
+				return;
+			}
+
+			// None of the pairs share an index, so the workers can't get in each other's way.
+			// Each worker counts its own swaps, so that we don't have to share the count between them.
+			List<Callable<Integer>> tasks = new ArrayList<Callable<Integer>>(WORKER_COUNT);
+			int chunkSize = (pairCount + WORKER_COUNT - 1) / WORKER_COUNT;
+			for(int chunkStart = 0; chunkStart < pairCount; chunkStart += chunkSize){
+				int firstPair = chunkStart;
+				int lastPair = Math.min(chunkStart + chunkSize, pairCount);
+				tasks.add(new Callable<Integer>(){
+					public Integer call(){
+						int swapCount = 0;
+						for(int pair = firstPair; pair < lastPair; pair++){
+							if(compareExchange(data, lowIndex(data.length, start, half, mirror, pair),
+									highIndex(data.length, start, half, mirror, pair)))
+								swapCount++;
+						}
+						return swapCount;
+					}
+				});
+			}
+
+			// invokeAll is our barrier between phases; it only returns once every worker is done.
+			// If it doesn't finish, the data is left part way through the phase, so the sort can't go on.
+			try{
+				for(Future<Integer> task : WORKERS.invokeAll(tasks))
+					writes += task.get() * 2;
+			}
+			catch(InterruptedException e){
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException("Sorting phase interrupted", e);
+			}
+			catch(ExecutionException e){
+				throw new IllegalStateException("Sorting phase failed", e.getCause());
+			}
+		}
+
+		/**
+		 * Swaps the data at the two indices if they are in the wrong order.
+		 * Safe to call from the workers, as it doesn't record anything;
+		 * the phase counts the swaps once every worker has finished.
+		 * @param low The index which should have the smaller value.
+		 * @param high The index which should have the larger value.
+		 * @return Whether the data was swapped.
+		 */
+		private boolean compareExchange(int[] data, int low, int high){
+			int lowValue = data[low];
+			int highValue = data[high];
+			if(lowValue > highValue){
+				data[low] = highValue;
+				data[high] = lowValue;
+				return true;
+			}
+			return false;
+		}
+	}
+
+	/**
+	 * Returns how many pairs are compared in a phase of a parallel sort (see doPhase).
+	 * Every full block has half pairs; the last block, if it isn't full, has one
+	 * for each index past its first half.
+	 * @param length The length of the data.
+	 */
+	private static int pairCount(int length, int start, int half){
+		int remaining = Math.max(0, length - start);
+		return remaining / (2*half) * half + Math.max(0, remaining % (2*half) - half);
+	}
+
+	/**
+	 * Returns the lower index of the given pair in a phase of a parallel sort (see doPhase).
+	 * @param length The length of the data.
+	 * @param pair Which pair, from 0 to pairCount.
+	 */
+	private static int lowIndex(int length, int start, int half, boolean mirror, int pair){
+		int block = pair / half;
+		int offset = pair % half;
+		// When mirroring, the pairs missing from a block that isn't full are the first ones, not the last
+		int fullBlocks = (length - start) / (2*half);
+		if(mirror && block == fullBlocks) offset += 2*half - (length - start) % (2*half);
+		return start + block * 2*half + offset;
+	}
+
+	/**
+	 * Returns the higher index of the given pair in a phase of a parallel sort (see doPhase).
+	 * @param length The length of the data.
+	 * @param pair Which pair, from 0 to pairCount.
+	 */
+	private static int highIndex(int length, int start, int half, boolean mirror, int pair){
+		int low = lowIndex(length, start, half, mirror, pair);
+		if(!mirror) return low + half;
+		int blockStart = start + pair / half * 2*half;
+		return blockStart + 2*half - 1 - (low - blockStart);
 	}
 }